@@ -0,0 +1,89 @@
+/*
+ *  Copyright 2014 Dan Haywood
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.module.security.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.apache.isis.core.metamodel.services.appfeat.ApplicationFeatureId;
+
+import org.isisaddons.module.security.dom.permission.ApplicationPermissionMode;
+import org.isisaddons.module.security.dom.permission.ApplicationPermissionValueSet;
+
+/**
+ * Cost of {@link ApplicationPermissionValueSet#evaluate(ApplicationFeatureId, ApplicationPermissionMode)}, for each
+ * of the {@link org.isisaddons.module.security.dom.permission.PermissionsEvaluationService} implementations, with
+ * and without the compiled form.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ApplicationPermissionValueSetBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int permissionSetSize;
+
+    @Param({"2", "5", "10"})
+    public int featureDepth;
+
+    @Param({"0.1", "0.9"})
+    public double hitRatio;
+
+    @Param({"allowBeatsVeto", "vetoBeatsAllow"})
+    public String evaluationService;
+
+    @Param({"false", "true"})
+    public boolean compiled;
+
+    private ApplicationPermissionValueSet permissionSet;
+    private ApplicationFeatureId[] checks;
+    private ApplicationPermissionMode[] modes;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final PermissionFixtures fixtures = new PermissionFixtures(permissionSetSize, featureDepth, hitRatio);
+        permissionSet = new ApplicationPermissionValueSet(
+                fixtures.getPermissionValues(),
+                PermissionFixtures.evaluationServiceFor(evaluationService),
+                compiled);
+        checks = fixtures.getChecks();
+        modes = fixtures.getModes();
+    }
+
+    @Benchmark
+    public ApplicationPermissionValueSet.Evaluation evaluate() {
+        final int i = next++ & (PermissionFixtures.NUM_CHECKS - 1);
+        return permissionSet.evaluate(checks[i], modes[i]);
+    }
+
+}
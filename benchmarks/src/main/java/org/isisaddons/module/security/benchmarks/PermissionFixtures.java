@@ -0,0 +1,142 @@
+/*
+ *  Copyright 2014 Dan Haywood
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.module.security.benchmarks;
+
+import java.util.List;
+import java.util.Random;
+
+import com.google.common.collect.Lists;
+
+import org.apache.isis.core.metamodel.services.appfeat.ApplicationFeatureId;
+
+import org.isisaddons.module.security.dom.permission.ApplicationPermissionMode;
+import org.isisaddons.module.security.dom.permission.ApplicationPermissionRule;
+import org.isisaddons.module.security.dom.permission.ApplicationPermissionValue;
+import org.isisaddons.module.security.dom.permission.PermissionsEvaluationService;
+import org.isisaddons.module.security.dom.permission.PermissionsEvaluationServiceAllowBeatsVeto;
+import org.isisaddons.module.security.dom.permission.PermissionsEvaluationServiceVetoBeatsAllow;
+
+/**
+ * Generates (deterministically) a set of permissions and the member features to be checked against them.
+ *
+ * <p>
+ *     Each permission is derived from a member feature, being placed either on that member, its class or one of its
+ *     packages.  Those members are the &quot;hits&quot;; the &quot;misses&quot; are members in a package for which
+ *     there are no permissions at all.
+ * </p>
+ */
+public class PermissionFixtures {
+
+    /**
+     * The number of features to check, cycled through by each benchmark.
+     */
+    public static final int NUM_CHECKS = 1024;
+
+    private static final long SEED = 20140101L;
+
+    private final List<ApplicationPermissionValue> permissionValues = Lists.newArrayList();
+    private final ApplicationFeatureId[] checks = new ApplicationFeatureId[NUM_CHECKS];
+    private final ApplicationPermissionMode[] modes = new ApplicationPermissionMode[NUM_CHECKS];
+
+    /**
+     * @param permissionSetSize - number of permissions
+     * @param featureDepth - number of package segments of each member feature
+     * @param hitRatio - proportion (0 to 1) of checked features that have a permission on their path
+     */
+    public PermissionFixtures(final int permissionSetSize, final int featureDepth, final double hitRatio) {
+        final Random random = new Random(SEED);
+
+        final List<ApplicationFeatureId> hits = Lists.newArrayList();
+        for (int i = 0; i < permissionSetSize; i++) {
+            final ApplicationFeatureId memberId = newMemberId("com", featureDepth, random);
+            hits.add(memberId);
+            permissionValues.add(new ApplicationPermissionValue(
+                    onPathOf(memberId, random),
+                    random.nextInt(5) == 0 ? ApplicationPermissionRule.VETO : ApplicationPermissionRule.ALLOW,
+                    random.nextBoolean() ? ApplicationPermissionMode.VIEWING : ApplicationPermissionMode.CHANGING));
+        }
+
+        for (int i = 0; i < NUM_CHECKS; i++) {
+            checks[i] = !hits.isEmpty() && random.nextDouble() < hitRatio
+                    ? hits.get(random.nextInt(hits.size()))
+                    : newMemberId("org", featureDepth, random);
+            modes[i] = random.nextBoolean() ? ApplicationPermissionMode.VIEWING : ApplicationPermissionMode.CHANGING;
+        }
+    }
+
+    public List<ApplicationPermissionValue> getPermissionValues() {
+        return permissionValues;
+    }
+
+    public ApplicationFeatureId[] getChecks() {
+        return checks;
+    }
+
+    public ApplicationPermissionMode[] getModes() {
+        return modes;
+    }
+
+    /**
+     * The {@link #getChecks() checks} formatted as permission strings, as per <code>IsisShiroAuthorizor</code>.
+     */
+    public String[] getPermissionStrings() {
+        final String[] permissionStrings = new String[NUM_CHECKS];
+        for (int i = 0; i < NUM_CHECKS; i++) {
+            permissionStrings[i] = asPermissionString(checks[i], modes[i]);
+        }
+        return permissionStrings;
+    }
+
+    public static String asPermissionString(final ApplicationFeatureId memberId, final ApplicationPermissionMode mode) {
+        return memberId.getPackageName() + ":" + memberId.getClassName() + ":" + memberId.getMemberName() + ":" +
+                (mode == ApplicationPermissionMode.VIEWING ? "r" : "w");
+    }
+
+    public static PermissionsEvaluationService evaluationServiceFor(final String name) {
+        switch (name) {
+            case "allowBeatsVeto":
+                return new PermissionsEvaluationServiceAllowBeatsVeto();
+            case "vetoBeatsAllow":
+                return new PermissionsEvaluationServiceVetoBeatsAllow();
+            default:
+                throw new IllegalArgumentException("Unknown evaluation service: " + name);
+        }
+    }
+
+    //region > helpers
+
+    /**
+     * Segments are drawn from a small alphabet so that members share packages and classes.
+     */
+    static ApplicationFeatureId newMemberId(final String rootPackage, final int featureDepth, final Random random) {
+        final StringBuilder buf = new StringBuilder(rootPackage);
+        for (int i = 1; i < featureDepth; i++) {
+            buf.append(".p").append(random.nextInt(4));
+        }
+        buf.append(".C").append(random.nextInt(10));
+        return ApplicationFeatureId.newMember(buf.toString(), "m" + random.nextInt(20));
+    }
+
+    static ApplicationFeatureId onPathOf(final ApplicationFeatureId memberId, final Random random) {
+        final List<ApplicationFeatureId> pathIds = memberId.getPathIds();
+        // don't place a permission on the root package, else every member would be a hit
+        return pathIds.get(random.nextInt(pathIds.size() - 1));
+    }
+
+    //endregion
+
+}
@@ -0,0 +1,281 @@
+/*
+ *  Copyright 2014 Dan Haywood
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.module.security.facets;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.Lists;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.apache.isis.applib.DomainObjectContainer;
+import org.apache.isis.applib.services.queryresultscache.QueryResultsCache;
+import org.apache.isis.core.metamodel.facetapi.FacetHolder;
+import org.apache.isis.core.metamodel.facetapi.FacetHolderImpl;
+import org.apache.isis.core.metamodel.facetapi.FacetUtil;
+import org.apache.isis.core.metamodel.facetapi.FeatureType;
+import org.apache.isis.core.metamodel.facets.FacetFactory;
+import org.apache.isis.core.metamodel.facets.FacetFactoryAbstract;
+import org.apache.isis.core.metamodel.facets.FacetedMethod;
+import org.apache.isis.core.metamodel.facets.FacetedMethodParameter;
+import org.apache.isis.core.metamodel.runtimecontext.ServicesInjector;
+
+import org.isisaddons.module.security.dom.permission.ApplicationPermission;
+import org.isisaddons.module.security.dom.role.ApplicationRole;
+import org.isisaddons.module.security.dom.tenancy.ApplicationTenancy;
+import org.isisaddons.module.security.dom.tenancy.ApplicationTenancyPathEvaluator;
+import org.isisaddons.module.security.dom.tenancy.ApplicationUserTenancyPathCache;
+import org.isisaddons.module.security.dom.tenancy.WithApplicationTenancy;
+import org.isisaddons.module.security.dom.user.ApplicationUser;
+import org.isisaddons.module.security.dom.user.ApplicationUserRepository;
+
+/**
+ * Cost (at startup) of {@link TenantedAuthorizationFacetFactory} processing every class, method and parameter of a
+ * metamodel, with a fresh factory for each build.
+ *
+ * <p>
+ *     The <code>baseline</code> benchmark reproduces the factory as it was before the services and
+ *     {@link ApplicationTenancyPathEvaluator#handles(Class)} were resolved once (per factory and per class
+ *     respectively): looking up five services and creating a facet with its own references to them for each holder.
+ *     Run with <code>-prof gc</code> to also compare allocation.
+ * </p>
+ *
+ * <p>
+ *     In this package because the facet factory's default evaluator is not public.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TenantedAuthorizationFacetFactoryBenchmark {
+
+    /**
+     * Number of other services registered ahead of the module's own, as scanned by
+     * {@link ServicesInjector#lookupService(Class)}.
+     */
+    static final int NUM_OTHER_SERVICES = 100;
+
+    public static class TenantedCustomer implements WithApplicationTenancy {
+        public ApplicationTenancy getApplicationTenancy() { return null; }
+        public String getName() { return null; }
+        public void setName(final String name) { }
+        public String getAddress() { return null; }
+        public void setAddress(final String address) { }
+        public TenantedCustomer updateName(final String name) { return this; }
+        public TenantedCustomer updateAddress(final String line1, final String line2, final String postcode) { return this; }
+        public List<TenantedOrder> getOrders() { return null; }
+        public TenantedOrder newOrder(final String reference, final String description) { return null; }
+    }
+
+    public static class TenantedOrder implements WithApplicationTenancy {
+        public ApplicationTenancy getApplicationTenancy() { return null; }
+        public String getReference() { return null; }
+        public void setReference(final String reference) { }
+        public String getDescription() { return null; }
+        public void setDescription(final String description) { }
+        public TenantedCustomer getCustomer() { return null; }
+        public TenantedOrder addItem(final String product, final int quantity) { return this; }
+        public TenantedOrder removeItem(final String product) { return this; }
+        public void delete(final boolean areYouSure) { }
+    }
+
+    private static final List<Class<?>> CLASSES = Collections.<Class<?>>unmodifiableList(Lists.<Class<?>>newArrayList(
+            ApplicationUser.class, ApplicationRole.class, ApplicationTenancy.class, ApplicationPermission.class,
+            TenantedCustomer.class, TenantedOrder.class));
+
+    private ServicesInjector servicesInjector;
+
+    private final List<FacetFactory.ProcessClassContext> classContexts = Lists.newArrayList();
+    private final List<FacetFactory.ProcessMethodContext> methodContexts = Lists.newArrayList();
+    private final List<FacetFactory.ProcessParameterContext> parameterContexts = Lists.newArrayList();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final List<Object> services = Lists.newArrayList();
+        for (int i = 0; i < NUM_OTHER_SERVICES; i++) {
+            services.add(new Object());
+        }
+        services.add(new ApplicationUserRepository());
+        services.add(new QueryResultsCache());
+        services.add(new ApplicationUserTenancyPathCache());
+        servicesInjector = new ServicesInjectorForBenchmark(services);
+
+        for (final Class<?> cls : CLASSES) {
+            classContexts.add(new FacetFactory.ProcessClassContext(cls, null, new FacetHolderImpl()));
+            for (final Method method : cls.getDeclaredMethods()) {
+                if(!Modifier.isPublic(method.getModifiers()) || method.isSynthetic()) {
+                    continue;
+                }
+                final FacetedMethod facetedMethod = FacetedMethod.createForAction(cls, method);
+                methodContexts.add(new FacetFactory.ProcessMethodContext(
+                        cls, FeatureType.ACTION, null, method, null, facetedMethod));
+                for (int i = 0; i < facetedMethod.getParameters().size(); i++) {
+                    final FacetedMethodParameter parameter = facetedMethod.getParameters().get(i);
+                    parameterContexts.add(new FacetFactory.ProcessParameterContext(cls, method, i, null, parameter));
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void current(final Blackhole blackhole) {
+        final TenantedAuthorizationFacetFactory facetFactory = new TenantedAuthorizationFacetFactory();
+        facetFactory.setServicesInjector(servicesInjector);
+        build(facetFactory);
+        blackhole.consume(facetFactory);
+    }
+
+    @Benchmark
+    public void baseline(final Blackhole blackhole) {
+        final BaselineFacetFactory facetFactory = new BaselineFacetFactory();
+        facetFactory.setServicesInjector(servicesInjector);
+        build(facetFactory);
+        blackhole.consume(facetFactory);
+    }
+
+    private void build(final FacetFactory facetFactory) {
+        for (final FacetFactory.ProcessClassContext classContext : classContexts) {
+            facetFactory.process(classContext);
+        }
+        for (final FacetFactory.ProcessMethodContext methodContext : methodContexts) {
+            facetFactory.process(methodContext);
+        }
+        for (final FacetFactory.ProcessParameterContext parameterContext : parameterContexts) {
+            facetFactory.processParams(parameterContext);
+        }
+    }
+
+    /**
+     * As per the framework's own implementation, scans the registered services.
+     */
+    static class ServicesInjectorForBenchmark implements ServicesInjector {
+
+        private final List<Object> services;
+
+        ServicesInjectorForBenchmark(final List<Object> services) {
+            this.services = services;
+        }
+
+        @Override
+        public <T> T lookupService(final Class<T> serviceClass) {
+            for (final Object service : services) {
+                if(serviceClass.isAssignableFrom(service.getClass())) {
+                    return serviceClass.cast(service);
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public <T> List<T> lookupServices(final Class<T> serviceClass) {
+            final List<T> matching = Lists.newArrayList();
+            for (final Object service : services) {
+                if(serviceClass.isAssignableFrom(service.getClass())) {
+                    matching.add(serviceClass.cast(service));
+                }
+            }
+            return matching;
+        }
+
+        @Override
+        public List<Object> getRegisteredServices() {
+            return services;
+        }
+
+        @Override
+        public void injectInto(final Object candidate) {
+        }
+
+        @Override
+        public void injectServicesInto(final Object object) {
+        }
+
+        @Override
+        public void injectServicesInto(final List<Object> objects) {
+        }
+    }
+
+    /**
+     * The facet factory's previous implementation.
+     */
+    static class BaselineFacetFactory extends FacetFactoryAbstract {
+
+        private ServicesInjector servicesInjector;
+        private final ApplicationTenancyPathEvaluator defaultEvaluator =
+                new TenantedAuthorizationFacetFactory.ApplicationTenancyPathEvaluatorDefault();
+
+        BaselineFacetFactory() {
+            super(FeatureType.EVERYTHING);
+        }
+
+        void setServicesInjector(final ServicesInjector servicesInjector) {
+            this.servicesInjector = servicesInjector;
+        }
+
+        @Override
+        public void process(final ProcessClassContext processClassContext) {
+            FacetUtil.addFacet(createFacet(processClassContext.getCls(), processClassContext.getFacetHolder()));
+        }
+
+        @Override
+        public void process(final ProcessMethodContext processMethodContext) {
+            FacetUtil.addFacet(createFacet(processMethodContext.getCls(), processMethodContext.getFacetHolder()));
+        }
+
+        @Override
+        public void processParams(final ProcessParameterContext processParameterContext) {
+            FacetUtil.addFacet(createFacet(processParameterContext.getCls(), processParameterContext.getFacetHolder()));
+        }
+
+        private TenantedAuthorizationFacetDefault createFacet(final Class<?> cls, final FacetHolder holder) {
+            ApplicationTenancyPathEvaluator evaluator = servicesInjector.lookupService(ApplicationTenancyPathEvaluator.class);
+            if(evaluator == null) {
+                evaluator = defaultEvaluator;
+            }
+            if(!evaluator.handles(cls)) {
+                return null;
+            }
+            final ApplicationUserRepository applicationUserRepository =
+                    servicesInjector.lookupService(ApplicationUserRepository.class);
+            final QueryResultsCache queryResultsCache = servicesInjector.lookupService(QueryResultsCache.class);
+            final DomainObjectContainer container = servicesInjector.lookupService(DomainObjectContainer.class);
+            final ApplicationUserTenancyPathCache userTenancyPathCache =
+                    servicesInjector.lookupService(ApplicationUserTenancyPathCache.class);
+            return new TenantedAuthorizationFacetDefault(
+                    applicationUserRepository, queryResultsCache, evaluator, container, userTenancyPathCache, holder);
+        }
+    }
+
+}
@@ -0,0 +1,78 @@
+/*
+ *  Copyright 2014 Dan Haywood
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.module.security.shiro;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.shiro.authz.Permission;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.isisaddons.module.security.benchmarks.PermissionFixtures;
+
+/**
+ * Cost of turning the permission strings formatted by <code>IsisShiroAuthorizor</code> into
+ * {@link PermissionForMember}s, both parsing directly and through the (interning)
+ * {@link PermissionResolverForIsisShiroAuthorizor}.
+ *
+ * <p>
+ *     In this package because {@link PermissionForMember} is not public.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PermissionForMemberBenchmark {
+
+    @Param({"2", "5", "10"})
+    public int featureDepth;
+
+    private final PermissionResolverForIsisShiroAuthorizor resolver = new PermissionResolverForIsisShiroAuthorizor();
+
+    private String[] permissionStrings;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // the hit ratio is irrelevant here: every check is parsed
+        permissionStrings = new PermissionFixtures(PermissionFixtures.NUM_CHECKS, featureDepth, 0.5).getPermissionStrings();
+    }
+
+    @Benchmark
+    public PermissionForMember parse() {
+        return new PermissionForMember(permissionStrings[next++ & (PermissionFixtures.NUM_CHECKS - 1)]);
+    }
+
+    @Benchmark
+    public Permission resolve() {
+        return resolver.resolvePermission(permissionStrings[next++ & (PermissionFixtures.NUM_CHECKS - 1)]);
+    }
+
+}
@@ -0,0 +1,111 @@
+/*
+ *  Copyright 2014 Dan Haywood
+ *
+ *  Licensed under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.module.security.shiro;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.shiro.authz.Permission;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.isisaddons.module.security.benchmarks.PermissionFixtures;
+import org.isisaddons.module.security.dom.permission.ApplicationPermissionMatrix;
+import org.isisaddons.module.security.dom.permission.ApplicationPermissionValueSet;
+import org.isisaddons.module.security.dom.user.AccountType;
+import org.isisaddons.module.security.dom.user.ApplicationUserStatus;
+
+/**
+ * Cost of the check performed by Shiro for each member, namely
+ * <code>PrincipalForApplicationUser.getObjectPermissions().implies(...)</code>, with and without an
+ * {@link ApplicationPermissionMatrix} (whose universe is the set of features checked).
+ *
+ * <p>
+ *     In this package because {@link PrincipalForApplicationUser} and {@link PermissionForMember} are not public.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrincipalForApplicationUserBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int permissionSetSize;
+
+    @Param({"2", "5", "10"})
+    public int featureDepth;
+
+    @Param({"0.1", "0.9"})
+    public double hitRatio;
+
+    @Param({"allowBeatsVeto", "vetoBeatsAllow"})
+    public String evaluationService;
+
+    @Param({"false", "true"})
+    public boolean matrix;
+
+    private PrincipalForApplicationUser principal;
+    private PermissionForMember[] permissions;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final PermissionFixtures fixtures = new PermissionFixtures(permissionSetSize, featureDepth, hitRatio);
+        final ApplicationPermissionValueSet permissionSet = new ApplicationPermissionValueSet(
+                fixtures.getPermissionValues(),
+                PermissionFixtures.evaluationServiceFor(evaluationService));
+        final ApplicationPermissionMatrix permissionMatrix = matrix
+                ? new ApplicationPermissionMatrix(
+                        new ApplicationPermissionMatrix.FeatureIndex(Arrays.asList(fixtures.getChecks())), permissionSet)
+                : null;
+        principal = new PrincipalForApplicationUser(
+                "benchmark", null, AccountType.LOCAL, ApplicationUserStatus.ENABLED,
+                Collections.<String>emptySet(), permissionSet, permissionMatrix);
+
+        final String[] permissionStrings = fixtures.getPermissionStrings();
+        permissions = new PermissionForMember[permissionStrings.length];
+        for (int i = 0; i < permissionStrings.length; i++) {
+            permissions[i] = new PermissionForMember(permissionStrings[i]);
+        }
+    }
+
+    @Benchmark
+    public boolean implies() {
+        final PermissionForMember permission = permissions[next++ & (PermissionFixtures.NUM_CHECKS - 1)];
+        for (final Permission objectPermission : principal.getObjectPermissions()) {
+            if(objectPermission.implies(permission)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}